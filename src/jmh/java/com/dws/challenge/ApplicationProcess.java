@@ -0,0 +1,110 @@
+package com.dws.challenge;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link ChallengeApplication} running in its own JVM from the plain jar classpath passed in the
+ * {@code startup.classpath} system property, used by {@link StartupBenchmark} and {@link
+ * CdsTrainingRun}. Its output is discarded, its errors go to the caller's stderr so that a JVM
+ * refusing an archive is visible.
+ */
+final class ApplicationProcess {
+
+  private final HttpClient client = HttpClient.newHttpClient();
+
+  private final Process process;
+
+  private final String baseUrl;
+
+  private ApplicationProcess(Process process, int port) {
+    this.process = process;
+    this.baseUrl = "http://localhost:" + port + "/v1/accounts";
+  }
+
+  /** Launches the application with the given JVM options and profile on a free port. */
+  static ApplicationProcess start(List<String> jvmOptions, String profile) throws IOException {
+    int port = freePort();
+    List<String> command = new ArrayList<>();
+    command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+    command.addAll(jvmOptions);
+    command.add("-cp");
+    command.add(requiredProperty("startup.classpath"));
+    command.add(ChallengeApplication.class.getName());
+    command.add("--server.port=" + port);
+    command.add("--spring.profiles.active=" + profile);
+    Process process =
+        new ProcessBuilder(command)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .redirectError(ProcessBuilder.Redirect.INHERIT)
+            .start();
+    return new ApplicationProcess(process, port);
+  }
+
+  /**
+   * Creates two accounts and transfers money between them, waiting for the application to accept
+   * connections first. Returns the status of the transfer.
+   */
+  int firstTransfer() throws Exception {
+    awaitStarted(baseUrl, "{\"accountId\":\"Id-1\",\"balance\":100}");
+    send(baseUrl, "{\"accountId\":\"Id-2\",\"balance\":100}");
+    return send(
+        baseUrl + "/money-transfer", "{\"accountFrom\":\"Id-1\",\"accountTo\":\"Id-2\",\"amount\":10}");
+  }
+
+  /** Stops the application through a graceful shutdown and waits for its JVM to exit. */
+  int stop() throws InterruptedException {
+    process.destroy();
+    return process.waitFor();
+  }
+
+  private void awaitStarted(String url, String body) throws Exception {
+    while (true) {
+      try {
+        send(url, body);
+        return;
+      } catch (ConnectException e) {
+        if (!process.isAlive()) {
+          throw new IllegalStateException("Application exited with " + process.exitValue());
+        }
+        Thread.sleep(5);
+      }
+    }
+  }
+
+  private int send(String url, String body) throws Exception {
+    HttpResponse<String> response =
+        client.send(
+            HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(),
+            HttpResponse.BodyHandlers.ofString());
+    if (response.statusCode() >= 300) {
+      throw new IllegalStateException(url + " returned " + response.statusCode());
+    }
+    return response.statusCode();
+  }
+
+  private static int freePort() throws IOException {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+
+  static String requiredProperty(String name) {
+    String value = System.getProperty(name);
+    if (value == null) {
+      throw new IllegalStateException("Missing system property " + name + ", run through Gradle");
+    }
+    return value;
+  }
+}
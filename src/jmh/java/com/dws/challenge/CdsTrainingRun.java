@@ -0,0 +1,36 @@
+package com.dws.challenge;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Dumps the AppCDS archive used by {@code runFastStart} and the {@code faststart-cds} variant of
+ * {@link StartupBenchmark}. It launches the application with the faststart profile, runs the same
+ * create-account and transfer round trip as the benchmark so that the lazily created beans and the
+ * request handling classes are loaded, and stops it. The JVM writes the archive on exit (JDK 13+).
+ * Run it with {@code ./gradlew appCdsArchive}.
+ */
+public final class CdsTrainingRun {
+
+  private CdsTrainingRun() {}
+
+  public static void main(String[] args) throws Exception {
+    Path archive = Paths.get(ApplicationProcess.requiredProperty("startup.cds-archive"));
+    Files.createDirectories(archive.getParent());
+    Files.deleteIfExists(archive);
+
+    ApplicationProcess application =
+        ApplicationProcess.start(List.of("-XX:ArchiveClassesAtExit=" + archive), "faststart");
+    try {
+      application.firstTransfer();
+    } finally {
+      application.stop();
+    }
+    if (!Files.exists(archive)) {
+      throw new IllegalStateException("The application did not write " + archive);
+    }
+    System.out.println("Wrote " + archive + " (" + Files.size(archive) + " bytes)");
+  }
+}
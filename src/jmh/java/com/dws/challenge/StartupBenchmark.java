@@ -0,0 +1,70 @@
+package com.dws.challenge;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time from launching {@link ChallengeApplication} in a fresh JVM until its first
+ * money transfer over HTTP succeeds, which is what a new pod goes through. The measurement ends
+ * when the transfer returns; the application is stopped afterwards, outside the measured time.
+ *
+ * <p>The application runs from the same plain jar classpath as {@link CdsTrainingRun}, because an
+ * AppCDS archive is only used with the classpath it was dumped for. {@code ./gradlew jmh} passes
+ * that classpath and the archive location as system properties. The {@code faststart-cds} variant
+ * fails unless {@code ./gradlew appCdsArchive} has written the archive, and runs with {@code
+ * -Xshare:on} so that a JVM unable to map it fails instead of silently starting without it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StartupBenchmark {
+
+  @Param({"default", "faststart", "faststart-cds"})
+  public String variant;
+
+  private ApplicationProcess application;
+
+  @Benchmark
+  public int timeToFirstTransfer() throws Exception {
+    application = ApplicationProcess.start(jvmOptions(), variant.replace("-cds", ""));
+    return application.firstTransfer();
+  }
+
+  @TearDown(Level.Iteration)
+  public void stopApplication() throws InterruptedException {
+    if (application != null) {
+      application.stop();
+      application = null;
+    }
+  }
+
+  private List<String> jvmOptions() {
+    if (!variant.endsWith("-cds")) {
+      return List.of();
+    }
+    Path archive = Paths.get(ApplicationProcess.requiredProperty("startup.cds-archive"));
+    if (!Files.exists(archive)) {
+      throw new IllegalStateException(
+          "No AppCDS archive at " + archive + ", run ./gradlew appCdsArchive first (JDK 13+)");
+    }
+    return List.of("-Xshare:on", "-XX:SharedArchiveFile=" + archive);
+  }
+}
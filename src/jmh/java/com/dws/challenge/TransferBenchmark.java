@@ -0,0 +1,76 @@
+package com.dws.challenge;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.MoneyTransferRequest;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.BalanceChangePublisher;
+import com.dws.challenge.service.VelocityLimiter;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of a transfer with velocity limits disabled and enabled, to keep the overhead
+ * of the limit check visible. Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TransferBenchmark {
+
+  @Param({"false", "true"})
+  public boolean velocityLimits;
+
+  private BalanceChangePublisher balanceChangePublisher;
+
+  private AccountsService accountsService;
+
+  private MoneyTransferRequest forward;
+
+  private MoneyTransferRequest backward;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    // Limits high enough never to reject, so that only the bookkeeping is measured.
+    BigDecimal maxAmount = velocityLimits ? new BigDecimal("1000000000000") : BigDecimal.ZERO;
+    int maxCount = velocityLimits ? Integer.MAX_VALUE : 0;
+    balanceChangePublisher = new BalanceChangePublisher(250, 5000, 1, 1);
+    accountsService =
+        new AccountsService(
+            new AccountsRepositoryInMemory(),
+            (account, transferDescription) -> {},
+            balanceChangePublisher,
+            new VelocityLimiter(maxAmount, maxCount, maxAmount, maxCount));
+    accountsService.createAccount(new Account("Id-1", new BigDecimal("1000000")));
+    accountsService.createAccount(new Account("Id-2", new BigDecimal("1000000")));
+    forward = new MoneyTransferRequest("Id-1", "Id-2", BigDecimal.ONE);
+    backward = new MoneyTransferRequest("Id-2", "Id-1", BigDecimal.ONE);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    balanceChangePublisher.destroy();
+  }
+
+  @Benchmark
+  public void transferBackAndForth() {
+    accountsService.transferMoney(forward);
+    accountsService.transferMoney(backward);
+  }
+}
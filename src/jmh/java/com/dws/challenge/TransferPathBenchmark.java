@@ -0,0 +1,131 @@
+package com.dws.challenge;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.MoneyTransferRequest;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.BalanceChangePublisher;
+import com.dws.challenge.service.VelocityLimiter;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the handle based transfer path of {@link AccountsService} with the previous string
+ * keyed path, which looked each id up twice in a hash map and updated balances by id. Account ids
+ * are copied for every request, as they would be when deserialized from JSON, so neither path
+ * benefits from a cached string hash.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@Threads(4)
+public class TransferPathBenchmark {
+
+  private static final int ACCOUNTS = 10_000;
+
+  private BalanceChangePublisher balanceChangePublisher;
+
+  private AccountsService accountsService;
+
+  private final Map<String, Account> stringKeyedAccounts = new ConcurrentHashMap<>();
+
+  private String[] accountIds;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    balanceChangePublisher = new BalanceChangePublisher(250, 5000, 1, 1);
+    accountsService =
+        new AccountsService(
+            new AccountsRepositoryInMemory(),
+            (account, transferDescription) -> {},
+            balanceChangePublisher,
+            new VelocityLimiter(BigDecimal.ZERO, 0, BigDecimal.ZERO, 0));
+    accountIds = new String[ACCOUNTS];
+    for (int i = 0; i < ACCOUNTS; i++) {
+      accountIds[i] = "Id-" + i;
+      accountsService.createAccount(new Account(accountIds[i], new BigDecimal("1000000")));
+      stringKeyedAccounts.put(accountIds[i], new Account(accountIds[i], new BigDecimal("1000000")));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    balanceChangePublisher.destroy();
+  }
+
+  @State(Scope.Thread)
+  public static class Requests {
+
+    private int next;
+
+    MoneyTransferRequest next(String[] accountIds) {
+      int from = next;
+      int to = (from + 1) % accountIds.length;
+      next = (from + 7) % accountIds.length;
+      return new MoneyTransferRequest(
+          new String(accountIds[from]), new String(accountIds[to]), BigDecimal.ONE);
+    }
+  }
+
+  @Benchmark
+  public void handles(Requests requests) {
+    MoneyTransferRequest request = requests.next(accountIds);
+    accountsService.transferMoney(request);
+    accountsService.transferMoney(
+        new MoneyTransferRequest(request.getAccountTo(), request.getAccountFrom(), BigDecimal.ONE));
+  }
+
+  @Benchmark
+  public void stringKeyed(Requests requests) {
+    MoneyTransferRequest request = requests.next(accountIds);
+    stringKeyedTransfer(request);
+    stringKeyedTransfer(
+        new MoneyTransferRequest(request.getAccountTo(), request.getAccountFrom(), BigDecimal.ONE));
+  }
+
+  /** The transfer path as it was before account handles, without notifications. */
+  private void stringKeyedTransfer(MoneyTransferRequest moneyTransferRequest) {
+    Account accountFrom = stringKeyedAccounts.get(moneyTransferRequest.getAccountFrom());
+    Account accountTo = stringKeyedAccounts.get(moneyTransferRequest.getAccountTo());
+
+    Object lock1 = accountFrom.getLOCK();
+    Object lock2 = accountTo.getLOCK();
+    if (accountFrom.hashCode() > accountTo.hashCode()) {
+      lock2 = accountFrom.getLOCK();
+      lock1 = accountTo.getLOCK();
+    }
+    synchronized (lock1) {
+      synchronized (lock2) {
+        accountFrom = stringKeyedAccounts.get(moneyTransferRequest.getAccountFrom());
+        accountTo = stringKeyedAccounts.get(moneyTransferRequest.getAccountTo());
+        BigDecimal accountFromUpdatedBalance =
+            accountFrom.getBalance().subtract(moneyTransferRequest.getAmount());
+        if (accountFromUpdatedBalance.compareTo(BigDecimal.ZERO) < 0) {
+          throw new IllegalStateException("overdraft");
+        }
+        BigDecimal accountToUpdatedBalance =
+            accountTo.getBalance().add(moneyTransferRequest.getAmount());
+        stringKeyedAccounts.get(accountFrom.getAccountId()).setBalance(accountFromUpdatedBalance);
+        stringKeyedAccounts.get(accountTo.getAccountId()).setBalance(accountToUpdatedBalance);
+      }
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package com.dws.challenge.domain;
+
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class AccountsPage {
+
+	private final List<Account> accounts;
+
+	/**
+	 * Cursor to pass as {@code after} to fetch the next page, or {@code null} when
+	 * this is the last page.
+	 */
+	private final String nextAfter;
+
+}
@@ -0,0 +1,11 @@
+package com.dws.challenge.exception;
+
+public class VelocityLimitExceededException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public VelocityLimitExceededException(String accountId, String limitName) {
+		super("Transfer exceeds the " + limitName + " velocity limit of account " + accountId + ".");
+	}
+
+}
@@ -0,0 +1,59 @@
+package com.dws.challenge.repository;
+
+import com.dws.challenge.domain.Account;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns every account a dense int handle when it is registered and keeps the
+ * accounts in an array indexed by that handle. The account id is hashed once to
+ * resolve its handle; everything after that is an array access.
+ */
+class AccountIdDictionary {
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private final Map<String, Integer> handles = new ConcurrentHashMap<>();
+
+	private volatile Account[] accounts = new Account[INITIAL_CAPACITY];
+
+	private int size;
+
+	/**
+	 * Registers the account and returns its new handle, or
+	 * {@link AccountsRepository#NO_HANDLE} when the id is already taken. Account
+	 * creation is rare compared to lookups, so registration is simply serialized.
+	 */
+	synchronized int register(Account account) {
+		if (handles.containsKey(account.getAccountId())) {
+			return AccountsRepository.NO_HANDLE;
+		}
+		if (size == accounts.length) {
+			accounts = Arrays.copyOf(accounts, size * 2);
+		}
+		int handle = size++;
+		accounts[handle] = account;
+		// Publishing the handle last makes the array slot visible to anyone who resolves it.
+		handles.put(account.getAccountId(), handle);
+		return handle;
+	}
+
+	int handleOf(String accountId) {
+		Integer handle = handles.get(accountId);
+		return handle == null ? AccountsRepository.NO_HANDLE : handle;
+	}
+
+	Account get(int handle) {
+		Account[] table = accounts;
+		return handle >= 0 && handle < table.length ? table[handle] : null;
+	}
+
+	synchronized void clear() {
+		handles.clear();
+		accounts = new Account[INITIAL_CAPACITY];
+		size = 0;
+	}
+
+}
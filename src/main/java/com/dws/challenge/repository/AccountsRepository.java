@@ -1,17 +1,36 @@
 package com.dws.challenge.repository;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 import com.dws.challenge.domain.Account;
 import com.dws.challenge.exception.DuplicateAccountIdException;
 
 public interface AccountsRepository {
 
+  /** Handle returned for account ids that are not known to the repository. */
+  int NO_HANDLE = -1;
+
   void createAccount(Account account) throws DuplicateAccountIdException;
 
   Account getAccount(String accountId);
 
+  /**
+   * Resolves the dense int handle assigned to the account when it was created, or {@link
+   * #NO_HANDLE} if there is no such account. Handles are unique and stable until the accounts are
+   * cleared.
+   */
+  int getHandle(String accountId);
+
+  Account getAccount(int handle);
+
+  /**
+   * Returns up to {@code limit} accounts whose ids start with {@code prefix}, in id order,
+   * starting right after the id {@code after} (or from the first match when it is null).
+   */
+  List<Account> getAccounts(String prefix, String after, int limit);
+
   void clearAccounts();
-  
-  Account updateBalance(String accountId, BigDecimal amount);
+
+  Account updateBalance(int handle, BigDecimal amount);
 }
@@ -2,42 +2,76 @@ package com.dws.challenge.repository;
 
 import com.dws.challenge.domain.Account;
 import com.dws.challenge.exception.DuplicateAccountIdException;
-import com.dws.challenge.exception.InvalidAccountIdExcption;
 
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 @Repository
 public class AccountsRepositoryInMemory implements AccountsRepository {
 
-	private final Map<String, Account> accounts = new ConcurrentHashMap<>();
+	private final AccountIdDictionary accounts = new AccountIdDictionary();
+
+	/**
+	 * Ordered secondary index over the same accounts, used for range and prefix
+	 * scans. Exact-key lookups keep going through the dictionary.
+	 */
+	private final NavigableMap<String, Account> accountIndex = new ConcurrentSkipListMap<>();
 
 	@Override
 	public void createAccount(Account account) throws DuplicateAccountIdException {
-		Account previousAccount = accounts.putIfAbsent(account.getAccountId(), account);
-		if (previousAccount != null) {
+		if (accounts.register(account) == NO_HANDLE) {
 			throw new DuplicateAccountIdException("Account id " + account.getAccountId() + " already exists!");
 		}
+		accountIndex.put(account.getAccountId(), account);
 	}
 
 	@Override
 	public Account getAccount(String accountId) {
-		return accounts.get(accountId);
+		return accounts.get(accounts.handleOf(accountId));
+	}
+
+	@Override
+	public int getHandle(String accountId) {
+		return accounts.handleOf(accountId);
+	}
+
+	@Override
+	public Account getAccount(int handle) {
+		return accounts.get(handle);
+	}
+
+	@Override
+	public List<Account> getAccounts(String prefix, String after, int limit) {
+		NavigableMap<String, Account> range = after != null && after.compareTo(prefix) >= 0
+				? accountIndex.tailMap(after, false)
+				: accountIndex.tailMap(prefix, true);
+		List<Account> page = new ArrayList<>(Math.min(limit, 64));
+		for (Map.Entry<String, Account> entry : range.entrySet()) {
+			if (page.size() == limit || !entry.getKey().startsWith(prefix)) {
+				break;
+			}
+			page.add(entry.getValue());
+		}
+		return page;
 	}
 
 	@Override
 	public void clearAccounts() {
 		accounts.clear();
+		accountIndex.clear();
 	}
 
 	@Override
-	public Account updateBalance(String accountId, BigDecimal amount) {
-		Account account = accounts.get(accountId);
+	public Account updateBalance(int handle, BigDecimal amount) {
+		Account account = accounts.get(handle);
 		if (account == null) {
-			throw new InvalidAccountIdExcption(accountId);
+			throw new IllegalStateException("No account registered for handle " + handle);
 		}
 		account.setBalance(amount);
 		return account;
@@ -1,11 +1,14 @@
 package com.dws.challenge.service;
 
 import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.AccountsPage;
 import com.dws.challenge.domain.MoneyTransferRequest;
 import com.dws.challenge.exception.InvalidAccountIdExcption;
 import com.dws.challenge.exception.InvalidMoneyTransferRequest;
 import com.dws.challenge.repository.AccountsRepository;
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import lombok.Getter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -13,15 +16,26 @@ import org.springframework.stereotype.Service;
 @Service
 public class AccountsService {
 
+  public static final int MAX_PAGE_SIZE = 1000;
+
   @Getter private final AccountsRepository accountsRepository;
 
   private final NotificationService notificationService;
 
+  private final BalanceChangePublisher balanceChangePublisher;
+
+  private final VelocityLimiter velocityLimiter;
+
   @Autowired
   public AccountsService(
-      AccountsRepository accountsRepository, NotificationService notificationService) {
+      AccountsRepository accountsRepository,
+      NotificationService notificationService,
+      BalanceChangePublisher balanceChangePublisher,
+      VelocityLimiter velocityLimiter) {
     this.accountsRepository = accountsRepository;
     this.notificationService = notificationService;
+    this.balanceChangePublisher = balanceChangePublisher;
+    this.velocityLimiter = velocityLimiter;
   }
 
   public void createAccount(Account account) {
@@ -32,28 +46,67 @@ public class AccountsService {
     return this.accountsRepository.getAccount(accountId);
   }
 
+  public AccountsPage getAccounts(String prefix, String after, int limit) {
+    if (limit < 1 || limit > MAX_PAGE_SIZE) {
+      throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE + ".");
+    }
+    List<Account> accounts = this.accountsRepository.getAccounts(prefix, after, limit);
+    String nextAfter =
+        accounts.size() == limit ? accounts.get(accounts.size() - 1).getAccountId() : null;
+    return new AccountsPage(accounts, nextAfter);
+  }
+
+  /**
+   * Subscribes the listener to balance changes of the given accounts, or returns false when there
+   * are too many subscribers already. The first delivery carries the current balances, which are
+   * recorded under the account locks like any transfer so that they can never overtake a newer
+   * balance.
+   */
+  public boolean subscribeToBalanceChanges(
+      Collection<String> accountIds, BalanceChangeListener listener) {
+    if (!balanceChangePublisher.subscribe(accountIds, listener)) {
+      return false;
+    }
+    for (String accountId : accountIds) {
+      Account account = accountsRepository.getAccount(accountId);
+      if (account != null) {
+        synchronized (account.getLOCK()) {
+          balanceChangePublisher.publish(accountId, account.getBalance());
+        }
+      }
+    }
+    balanceChangePublisher.flushSoon();
+    return true;
+  }
+
+  public void unsubscribeFromBalanceChanges(BalanceChangeListener listener) {
+    balanceChangePublisher.unsubscribe(listener);
+  }
+
   public MoneyTransferResult transferMoney(MoneyTransferRequest moneyTransferRequest) {
-    Account accountFrom = accountsRepository.getAccount(moneyTransferRequest.getAccountFrom());
+    // Account ids are resolved to handles once; the rest of the transfer works on handles only.
+    int accountFromHandle = resolveHandle(moneyTransferRequest.getAccountFrom());
+    int accountToHandle = resolveHandle(moneyTransferRequest.getAccountTo());
+    Account accountFrom = accountsRepository.getAccount(accountFromHandle);
+    Account accountTo = accountsRepository.getAccount(accountToHandle);
+    // Only reachable when clearAccounts runs between resolving a handle and reading its slot.
     if (accountFrom == null) {
       throw new InvalidAccountIdExcption(moneyTransferRequest.getAccountFrom());
     }
-    Account accountTo = accountsRepository.getAccount(moneyTransferRequest.getAccountTo());
     if (accountTo == null) {
       throw new InvalidAccountIdExcption(moneyTransferRequest.getAccountTo());
     }
 
+    // Handles are unique, so ordering the locks by handle is a total order.
     Object lock1 = accountFrom.getLOCK();
     Object lock2 = accountTo.getLOCK();
 
-    if (accountFrom.hashCode() > accountTo.hashCode()) {
+    if (accountFromHandle > accountToHandle) {
       lock2 = accountFrom.getLOCK();
       lock1 = accountTo.getLOCK();
     }
     synchronized (lock1) {
       synchronized (lock2) {
-        accountFrom = accountsRepository.getAccount(moneyTransferRequest.getAccountFrom());
-        accountTo = accountsRepository.getAccount(moneyTransferRequest.getAccountTo());
-
         BigDecimal accountFromUpdatedBalance =
             accountFrom.getBalance().subtract(moneyTransferRequest.getAmount());
 
@@ -61,13 +114,15 @@ public class AccountsService {
           throw new InvalidMoneyTransferRequest(
               "Requested amount to transfer is overdrafting account.");
         }
+        velocityLimiter.checkAndRecord(
+            accountFromHandle, accountFrom, moneyTransferRequest.getAmount());
 
-        accountFromUpdatedBalance =
-            accountFrom.getBalance().subtract(moneyTransferRequest.getAmount());
         BigDecimal accountToUpdatedBalance =
             accountTo.getBalance().add(moneyTransferRequest.getAmount());
-        accountsRepository.updateBalance(accountFrom.getAccountId(), accountFromUpdatedBalance);
-        accountsRepository.updateBalance(accountTo.getAccountId(), accountToUpdatedBalance);
+        accountsRepository.updateBalance(accountFromHandle, accountFromUpdatedBalance);
+        accountsRepository.updateBalance(accountToHandle, accountToUpdatedBalance);
+        balanceChangePublisher.publish(accountFrom.getAccountId(), accountFromUpdatedBalance);
+        balanceChangePublisher.publish(accountTo.getAccountId(), accountToUpdatedBalance);
       }
     }
     notificationService.notifyAboutTransfer(
@@ -76,4 +131,12 @@ public class AccountsService {
         accountTo, "Your account is credited with amount " + moneyTransferRequest.getAmount());
     return MoneyTransferResult.SUCCESS;
   }
+
+  private int resolveHandle(String accountId) {
+    int handle = accountsRepository.getHandle(accountId);
+    if (handle == AccountsRepository.NO_HANDLE) {
+      throw new InvalidAccountIdExcption(accountId);
+    }
+    return handle;
+  }
 }
@@ -0,0 +1,18 @@
+package com.dws.challenge.service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Map;
+
+@FunctionalInterface
+public interface BalanceChangeListener {
+
+  /**
+   * Receives the latest balance of every subscribed account that changed since the previous
+   * delivery, keyed by account id.
+   */
+  void onBalanceChanges(Map<String, BigDecimal> balances) throws IOException;
+
+  /** Called once the listener has been dropped for failing or falling behind. */
+  default void onDropped() {}
+}
@@ -0,0 +1,260 @@
+package com.dws.challenge.service;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Pushes balance changes to subscribers, coalesced per account. Transfers only record the latest
+ * balance in a map. A flusher thread hands the coalesced balances to each subscriber's own
+ * latest-value slot once per window, and a fixed pool of delivery threads drains the slots. A slow
+ * subscriber therefore never holds up a transfer or the flusher, and is dropped once it falls too
+ * far behind. The number of subscribers is capped, which also bounds the delivery backlog.
+ */
+@Slf4j
+@Service
+public class BalanceChangePublisher implements DisposableBean {
+
+  private final Map<String, Set<Subscription>> subscriptionsByAccount = new ConcurrentHashMap<>();
+
+  private final Map<BalanceChangeListener, Subscription> subscriptions = new ConcurrentHashMap<>();
+
+  private final Map<String, BigDecimal> pendingBalances = new ConcurrentHashMap<>();
+
+  private final AtomicInteger subscriberCount = new AtomicInteger();
+
+  private final int maxSubscribers;
+
+  private final long maxDeliveryLagNanos;
+
+  private final ScheduledExecutorService flusher;
+
+  private final ExecutorService delivery;
+
+  @Autowired
+  public BalanceChangePublisher(
+      @Value("${balance-stream.coalesce-window-ms:250}") long coalesceWindowMs,
+      @Value("${balance-stream.max-delivery-lag-ms:5000}") long maxDeliveryLagMs,
+      @Value("${balance-stream.delivery-threads:8}") int deliveryThreads,
+      @Value("${balance-stream.max-subscribers:1000}") int maxSubscribers) {
+    this.maxSubscribers = maxSubscribers;
+    this.maxDeliveryLagNanos = TimeUnit.MILLISECONDS.toNanos(maxDeliveryLagMs);
+    this.flusher =
+        Executors.newSingleThreadScheduledExecutor(daemonThreads("balance-stream-flusher"));
+    // Each subscriber has at most one drain queued or running, so the queue is bounded by the
+    // subscriber cap.
+    this.delivery =
+        Executors.newFixedThreadPool(deliveryThreads, daemonThreads("balance-stream-delivery"));
+    this.flusher.scheduleWithFixedDelay(
+        this::flush, coalesceWindowMs, coalesceWindowMs, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Records the new balance of an account. Callers hold the account lock, which keeps the recorded
+   * balances in order; a later change simply overwrites an undelivered one.
+   */
+  public void publish(String accountId, BigDecimal balance) {
+    if (subscriptionsByAccount.containsKey(accountId)) {
+      pendingBalances.put(accountId, balance);
+    }
+  }
+
+  /**
+   * Subscribes the listener to the given accounts, or returns false when the maximum number of
+   * subscribers is reached.
+   */
+  public boolean subscribe(Collection<String> accountIds, BalanceChangeListener listener) {
+    int count;
+    do {
+      count = subscriberCount.get();
+      if (count >= maxSubscribers) {
+        return false;
+      }
+    } while (!subscriberCount.compareAndSet(count, count + 1));
+
+    Subscription subscription = new Subscription(listener, accountIds);
+    subscriptions.put(listener, subscription);
+    for (String accountId : subscription.accountIds) {
+      subscriptionsByAccount.compute(
+          accountId,
+          (id, accountSubscriptions) -> {
+            Set<Subscription> updated =
+                accountSubscriptions == null ? ConcurrentHashMap.newKeySet() : accountSubscriptions;
+            updated.add(subscription);
+            return updated;
+          });
+    }
+    return true;
+  }
+
+  public void unsubscribe(BalanceChangeListener listener) {
+    Subscription subscription = subscriptions.remove(listener);
+    if (subscription == null) {
+      return;
+    }
+    subscription.dropped = true;
+    subscriberCount.decrementAndGet();
+    for (String accountId : subscription.accountIds) {
+      subscriptionsByAccount.computeIfPresent(
+          accountId,
+          (id, accountSubscriptions) -> {
+            accountSubscriptions.remove(subscription);
+            return accountSubscriptions.isEmpty() ? null : accountSubscriptions;
+          });
+    }
+  }
+
+  public boolean hasSubscribers(String accountId) {
+    return subscriptionsByAccount.containsKey(accountId);
+  }
+
+  /** Runs a flush on the flusher thread without waiting for the end of the current window. */
+  public void flushSoon() {
+    flusher.execute(this::flush);
+  }
+
+  /** Hands pending balances to their subscribers. Runs on the flusher thread every window. */
+  public void flush() {
+    if (pendingBalances.isEmpty()) {
+      return;
+    }
+    Map<Subscription, Map<String, BigDecimal>> batches = new HashMap<>();
+    for (String accountId : pendingBalances.keySet()) {
+      BigDecimal balance = pendingBalances.remove(accountId);
+      Set<Subscription> accountSubscriptions = subscriptionsByAccount.get(accountId);
+      if (balance == null || accountSubscriptions == null) {
+        continue;
+      }
+      for (Subscription subscription : accountSubscriptions) {
+        batches.computeIfAbsent(subscription, s -> new HashMap<>()).put(accountId, balance);
+      }
+    }
+    batches.forEach(Subscription::offer);
+  }
+
+  @Override
+  public void destroy() {
+    flusher.shutdownNow();
+    delivery.shutdownNow();
+  }
+
+  private static ThreadFactory daemonThreads(String name) {
+    return runnable -> {
+      Thread thread = new Thread(runnable, name);
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  /**
+   * Latest undelivered balance per account for one listener. The {@code draining} flag is owned by
+   * at most one delivery thread at a time, which keeps the balances of an account in order. Closing
+   * a dropped listener also takes that flag, so it never waits behind a write that is still stuck
+   * and never occupies a second thread.
+   */
+  private final class Subscription {
+
+    private final BalanceChangeListener listener;
+
+    private final Set<String> accountIds;
+
+    private final Map<String, BigDecimal> latestBalances = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    private volatile long lastProgressNanos;
+
+    private volatile boolean dropped;
+
+    private volatile boolean closeRequested;
+
+    private Subscription(BalanceChangeListener listener, Collection<String> accountIds) {
+      this.listener = listener;
+      this.accountIds = new LinkedHashSet<>(accountIds);
+    }
+
+    private void offer(Map<String, BigDecimal> balances) {
+      if (dropped) {
+        return;
+      }
+      latestBalances.putAll(balances);
+      if (draining.compareAndSet(false, true)) {
+        lastProgressNanos = System.nanoTime();
+        delivery.execute(this::drain);
+      } else if (System.nanoTime() - lastProgressNanos > maxDeliveryLagNanos) {
+        drop("delivery stalled");
+      }
+    }
+
+    private void drop(String reason) {
+      log.debug("Dropping balance change subscriber: {}", reason);
+      unsubscribe(listener);
+      closeRequested = true;
+      // Only close here if no delivery thread owns the subscription, otherwise that thread closes
+      // it once its current write returns.
+      if (draining.compareAndSet(false, true)) {
+        delivery.execute(this::close);
+      }
+    }
+
+    private void drain() {
+      while (!dropped) {
+        Map<String, BigDecimal> balances = new HashMap<>();
+        for (String accountId : latestBalances.keySet()) {
+          BigDecimal balance = latestBalances.remove(accountId);
+          if (balance != null) {
+            balances.put(accountId, balance);
+          }
+        }
+        if (balances.isEmpty()) {
+          draining.set(false);
+          // Balances offered after the slot looked empty are drained here, not lost.
+          if (latestBalances.isEmpty() || !draining.compareAndSet(false, true)) {
+            closeIfRequested();
+            return;
+          }
+          continue;
+        }
+        try {
+          listener.onBalanceChanges(balances);
+        } catch (Exception e) {
+          drop(e.getMessage());
+          break;
+        }
+        lastProgressNanos = System.nanoTime();
+      }
+      draining.set(false);
+      closeIfRequested();
+    }
+
+    private void closeIfRequested() {
+      if (closeRequested && draining.compareAndSet(false, true)) {
+        close();
+      }
+    }
+
+    private void close() {
+      try {
+        listener.onDropped();
+      } catch (Exception e) {
+        log.debug("Failed to close dropped subscriber: {}", e.getMessage());
+      }
+    }
+  }
+}
@@ -0,0 +1,29 @@
+package com.dws.challenge.service;
+
+import java.math.BigDecimal;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Upper bound on the amount and number of debits of one account within a sliding window. The
+ * window is split into {@code buckets} equal slices, which is also the granularity at which old
+ * debits fall out of it. A zero maximum means that dimension is not limited.
+ */
+@Data
+@Builder
+public class VelocityLimit {
+
+  private final String name;
+
+  private final long windowMillis;
+
+  private final int buckets;
+
+  private final BigDecimal maxAmount;
+
+  private final int maxCount;
+
+  boolean isEnabled() {
+    return (maxAmount != null && maxAmount.signum() > 0) || maxCount > 0;
+  }
+}
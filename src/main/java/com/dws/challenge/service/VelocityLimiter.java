@@ -0,0 +1,210 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.exception.VelocityLimitExceededException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Enforces {@link VelocityLimit}s on the debited account of a transfer. Every account has one ring
+ * of time buckets per limit, stored in primitive arrays and addressed by account handle. An
+ * account's counters are installed into a chunked table with compare-and-set, so the limiter takes
+ * no lock of its own. The counters are only touched while the account's transfer lock is held,
+ * which makes checking and recording a debit atomic with the debit itself.
+ */
+@Service
+public class VelocityLimiter {
+
+  /** Amounts are accumulated in hundredths, rounded up, to keep the counters primitive. */
+  private static final int AMOUNT_SCALE = 2;
+
+  private static final BigDecimal MAX_MINOR_UNITS = BigDecimal.valueOf(Long.MAX_VALUE);
+
+  private static final int CHUNK_BITS = 14;
+
+  private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+  /** Room for 4096 chunks of 16384 accounts; chunks are only allocated once used. */
+  private static final int MAX_CHUNKS = 4096;
+
+  private final VelocityLimit[] limits;
+
+  private final long[] maxAmounts;
+
+  private final LongSupplier clock;
+
+  private final AtomicReferenceArray<AtomicReferenceArray<AccountCounters>> countersByHandle =
+      new AtomicReferenceArray<>(MAX_CHUNKS);
+
+  @Autowired
+  public VelocityLimiter(
+      @Value("${transfer.velocity.per-minute.max-amount:0}") BigDecimal perMinuteMaxAmount,
+      @Value("${transfer.velocity.per-minute.max-count:0}") int perMinuteMaxCount,
+      @Value("${transfer.velocity.per-day.max-amount:0}") BigDecimal perDayMaxAmount,
+      @Value("${transfer.velocity.per-day.max-count:0}") int perDayMaxCount) {
+    this(
+        List.of(
+            VelocityLimit.builder()
+                .name("per-minute")
+                .windowMillis(60_000L)
+                .buckets(60)
+                .maxAmount(perMinuteMaxAmount)
+                .maxCount(perMinuteMaxCount)
+                .build(),
+            VelocityLimit.builder()
+                .name("per-day")
+                .windowMillis(86_400_000L)
+                .buckets(96)
+                .maxAmount(perDayMaxAmount)
+                .maxCount(perDayMaxCount)
+                .build()),
+        System::currentTimeMillis);
+  }
+
+  public VelocityLimiter(List<VelocityLimit> limits, LongSupplier clock) {
+    List<VelocityLimit> enabledLimits = new ArrayList<>();
+    for (VelocityLimit limit : limits) {
+      if (limit.isEnabled()) {
+        enabledLimits.add(limit);
+      }
+    }
+    this.limits = enabledLimits.toArray(new VelocityLimit[0]);
+    this.maxAmounts = new long[this.limits.length];
+    for (int i = 0; i < this.limits.length; i++) {
+      BigDecimal maxAmount = this.limits[i].getMaxAmount();
+      maxAmounts[i] = maxAmount != null && maxAmount.signum() > 0 ? toMinorUnits(maxAmount) : Long.MAX_VALUE;
+    }
+    this.clock = clock;
+  }
+
+  /**
+   * Records a debit of {@code amount} from the account, or rejects it if that would exceed any
+   * limit, in which case nothing is recorded. Must be called while holding the account's lock.
+   */
+  public void checkAndRecord(int handle, Account account, BigDecimal amount) {
+    if (limits.length == 0) {
+      return;
+    }
+    AccountCounters counters = countersFor(handle, account);
+    long now = clock.getAsLong();
+    long amountInMinorUnits = toMinorUnits(amount);
+    for (int i = 0; i < limits.length; i++) {
+      VelocityLimit limit = limits[i];
+      WindowCounters window = counters.windows[i];
+      long epoch = now / (limit.getWindowMillis() / limit.getBuckets());
+      window.sum(epoch);
+      boolean amountExceeded =
+          maxAmounts[i] != Long.MAX_VALUE
+              && (amountInMinorUnits > maxAmounts[i]
+                  || window.amountSum > maxAmounts[i] - amountInMinorUnits);
+      if (amountExceeded
+          || (limit.getMaxCount() > 0 && window.countSum + 1 > limit.getMaxCount())) {
+        throw new VelocityLimitExceededException(account.getAccountId(), limit.getName());
+      }
+    }
+    for (int i = 0; i < limits.length; i++) {
+      VelocityLimit limit = limits[i];
+      counters.windows[i].record(
+          now / (limit.getWindowMillis() / limit.getBuckets()), amountInMinorUnits);
+    }
+  }
+
+  private AccountCounters countersFor(int handle, Account account) {
+    int chunkIndex = handle >>> CHUNK_BITS;
+    AtomicReferenceArray<AccountCounters> chunk = countersByHandle.get(chunkIndex);
+    if (chunk == null) {
+      countersByHandle.compareAndSet(chunkIndex, null, new AtomicReferenceArray<>(CHUNK_SIZE));
+      chunk = countersByHandle.get(chunkIndex);
+    }
+    int slot = handle & (CHUNK_SIZE - 1);
+    while (true) {
+      AccountCounters counters = chunk.get(slot);
+      // Handles are reused once the accounts are cleared, hence the owner check.
+      if (counters != null && counters.owner == account) {
+        return counters;
+      }
+      AccountCounters installed = new AccountCounters(account, limits);
+      if (chunk.compareAndSet(slot, counters, installed)) {
+        return installed;
+      }
+    }
+  }
+
+  /** Converts to hundredths, saturating at Long.MAX_VALUE, which exceeds any amount limit. */
+  private static long toMinorUnits(BigDecimal amount) {
+    BigDecimal minorUnits = amount.movePointRight(AMOUNT_SCALE).setScale(0, RoundingMode.CEILING);
+    return minorUnits.compareTo(MAX_MINOR_UNITS) > 0 ? Long.MAX_VALUE : minorUnits.longValue();
+  }
+
+  private static long saturatedAdd(long a, long b) {
+    long sum = a + b;
+    return sum < 0 ? Long.MAX_VALUE : sum;
+  }
+
+  private static final class AccountCounters {
+
+    private final Account owner;
+
+    private final WindowCounters[] windows;
+
+    private AccountCounters(Account owner, VelocityLimit[] limits) {
+      this.owner = owner;
+      this.windows = new WindowCounters[limits.length];
+      for (int i = 0; i < limits.length; i++) {
+        windows[i] = new WindowCounters(limits[i].getBuckets());
+      }
+    }
+  }
+
+  /** Ring of buckets; a bucket only counts while its epoch lies within the last ring length. */
+  private static final class WindowCounters {
+
+    private final long[] epochs;
+
+    private final long[] amounts;
+
+    private final int[] counts;
+
+    private long amountSum;
+
+    private int countSum;
+
+    private WindowCounters(int buckets) {
+      this.epochs = new long[buckets];
+      this.amounts = new long[buckets];
+      this.counts = new int[buckets];
+      Arrays.fill(epochs, Long.MIN_VALUE);
+    }
+
+    private void sum(long currentEpoch) {
+      long oldestEpoch = currentEpoch - epochs.length;
+      amountSum = 0;
+      countSum = 0;
+      for (int i = 0; i < epochs.length; i++) {
+        if (epochs[i] > oldestEpoch) {
+          amountSum = saturatedAdd(amountSum, amounts[i]);
+          countSum += counts[i];
+        }
+      }
+    }
+
+    private void record(long currentEpoch, long amount) {
+      int index = (int) (currentEpoch % epochs.length);
+      if (epochs[index] != currentEpoch) {
+        epochs[index] = currentEpoch;
+        amounts[index] = 0;
+        counts[index] = 0;
+      }
+      amounts[index] = saturatedAdd(amounts[index], amount);
+      counts[index]++;
+    }
+  }
+}
@@ -1,8 +1,14 @@
 package com.dws.challenge.web;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
 import javax.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -11,14 +17,19 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.AccountsPage;
 import com.dws.challenge.domain.MoneyTransferRequest;
 import com.dws.challenge.exception.DuplicateAccountIdException;
 import com.dws.challenge.exception.InvalidAccountIdExcption;
 import com.dws.challenge.exception.InvalidMoneyTransferRequest;
+import com.dws.challenge.exception.VelocityLimitExceededException;
 import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.BalanceChangeListener;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -29,9 +40,17 @@ public class AccountsController {
 
 	private final AccountsService accountsService;
 
+	private final long balanceStreamTimeoutMs;
+
+	private final int maxAccountsPerStream;
+
 	@Autowired
-	public AccountsController(AccountsService accountsService) {
+	public AccountsController(AccountsService accountsService,
+			@Value("${balance-stream.timeout-ms:1800000}") long balanceStreamTimeoutMs,
+			@Value("${balance-stream.max-accounts-per-stream:100}") int maxAccountsPerStream) {
 		this.accountsService = accountsService;
+		this.balanceStreamTimeoutMs = balanceStreamTimeoutMs;
+		this.maxAccountsPerStream = maxAccountsPerStream;
 	}
 
 	@PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
@@ -47,6 +66,20 @@ public class AccountsController {
 		return new ResponseEntity<>(HttpStatus.CREATED);
 	}
 
+	@GetMapping
+	public ResponseEntity<Object> getAccounts(@RequestParam(defaultValue = "") String prefix,
+			@RequestParam(required = false) String after, @RequestParam(defaultValue = "100") int limit) {
+		log.info("Listing accounts with prefix {} after {}", prefix, after);
+
+		AccountsPage page;
+		try {
+			page = this.accountsService.getAccounts(prefix, after, limit);
+		} catch (IllegalArgumentException iae) {
+			return new ResponseEntity<>(iae.getMessage(), HttpStatus.BAD_REQUEST);
+		}
+		return new ResponseEntity<>(page, HttpStatus.OK);
+	}
+
 	@GetMapping(path = "/{accountId}")
 	public Account getAccount(@PathVariable String accountId) {
 		log.info("Retrieving account for id {}", accountId);
@@ -60,10 +93,40 @@ public class AccountsController {
 
 		try {
 			this.accountsService.transferMoney(moneyTransferRequest);
-		} catch (InvalidAccountIdExcption | InvalidMoneyTransferRequest e) {
+		} catch (InvalidAccountIdExcption | InvalidMoneyTransferRequest | VelocityLimitExceededException e) {
 			return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
 		}
 		return new ResponseEntity<>("Transfer successful.", HttpStatus.OK);
 	}
 
+	@GetMapping(path = "/balance-stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public ResponseEntity<SseEmitter> streamBalanceChanges(@RequestParam List<String> accountIds) {
+		log.info("Subscribing to balance changes for {}", accountIds);
+
+		if (accountIds.size() > maxAccountsPerStream) {
+			return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+		}
+
+		SseEmitter emitter = new SseEmitter(balanceStreamTimeoutMs);
+		BalanceChangeListener listener = new BalanceChangeListener() {
+
+			@Override
+			public void onBalanceChanges(Map<String, BigDecimal> balances) throws IOException {
+				emitter.send(SseEmitter.event().name("balance").data(balances, MediaType.APPLICATION_JSON));
+			}
+
+			@Override
+			public void onDropped() {
+				emitter.complete();
+			}
+		};
+		emitter.onCompletion(() -> this.accountsService.unsubscribeFromBalanceChanges(listener));
+		emitter.onTimeout(() -> this.accountsService.unsubscribeFromBalanceChanges(listener));
+		emitter.onError(e -> this.accountsService.unsubscribeFromBalanceChanges(listener));
+		if (!this.accountsService.subscribeToBalanceChanges(accountIds, listener)) {
+			return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+		}
+		return new ResponseEntity<>(emitter, HttpStatus.OK);
+	}
+
 }
@@ -0,0 +1,70 @@
+package com.dws.challenge.web;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.validation.Validator;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.AccountsPage;
+import com.dws.challenge.domain.MoneyTransferRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Builds the Jackson serializers and the validation metadata of the request and
+ * response bodies once the eager singletons exist, which is before the web server
+ * starts accepting connections, so that the first transfer does not pay for it.
+ * Used by the fast start profile.
+ */
+@Slf4j
+@Component
+@Lazy(false)
+@Profile("faststart")
+public class StartupWarmup implements SmartInitializingSingleton {
+
+	private final ObjectMapper objectMapper;
+
+	private final Validator validator;
+
+	private volatile boolean warmedUp;
+
+	@Autowired
+	public StartupWarmup(ObjectMapper objectMapper, Validator validator) {
+		this.objectMapper = objectMapper;
+		this.validator = validator;
+	}
+
+	@Override
+	public void afterSingletonsInstantiated() {
+		long start = System.nanoTime();
+
+		try {
+			Account account = this.objectMapper.readValue("{\"accountId\":\"Id-warmup\",\"balance\":1}", Account.class);
+			this.objectMapper.writeValueAsString(account);
+			this.objectMapper.writeValueAsString(new AccountsPage(List.of(account), null));
+			MoneyTransferRequest moneyTransferRequest = this.objectMapper.readValue(
+					"{\"accountFrom\":\"Id-warmup\",\"accountTo\":\"Id-warmup\",\"amount\":1}", MoneyTransferRequest.class);
+			this.validator.validate(account);
+			this.validator.validate(moneyTransferRequest);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Failed to warm up request body handling", e);
+		}
+		this.warmedUp = true;
+
+		log.info("Warmed up request body handling in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+	}
+
+	public boolean isWarmedUp() {
+		return this.warmedUp;
+	}
+
+}
@@ -4,24 +4,30 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.setup.MockMvcBuilders.webAppContextSetup;
 
 import java.math.BigDecimal;
 
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.web.context.WebApplicationContext;
 
 import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.MoneyTransferRequest;
 import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.BalanceChangePublisher;
 
 @ExtendWith(SpringExtension.class)
 @SpringBootTest
@@ -33,6 +39,9 @@ class AccountsControllerTest {
 	@Autowired
 	private AccountsService accountsService;
 
+	@Autowired
+	private BalanceChangePublisher balanceChangePublisher;
+
 	@Autowired
 	private WebApplicationContext webApplicationContext;
 
@@ -103,6 +112,25 @@ class AccountsControllerTest {
 				.andExpect(content().string("{\"accountId\":\"" + uniqueAccountId + "\",\"balance\":123.45}"));
 	}
 
+	@Test
+	void getAccounts() throws Exception {
+		this.accountsService.createAccount(new Account("Id-2", new BigDecimal("20")));
+		this.accountsService.createAccount(new Account("Id-1", new BigDecimal("10")));
+		this.accountsService.createAccount(new Account("Other-1", new BigDecimal("30")));
+
+		this.mockMvc.perform(get("/v1/accounts?prefix=Id-&limit=1")).andExpect(status().isOk())
+				.andExpect(content().string(
+						"{\"accounts\":[{\"accountId\":\"Id-1\",\"balance\":10}],\"nextAfter\":\"Id-1\"}"));
+		this.mockMvc.perform(get("/v1/accounts?prefix=Id-&after=Id-1&limit=1")).andExpect(status().isOk())
+				.andExpect(content().string(
+						"{\"accounts\":[{\"accountId\":\"Id-2\",\"balance\":20}],\"nextAfter\":\"Id-2\"}"));
+	}
+
+	@Test
+	void getAccounts_ifInvalidLimit() throws Exception {
+		this.mockMvc.perform(get("/v1/accounts?limit=0")).andExpect(status().isBadRequest());
+	}
+
 	@Test
 	void transferMoney() throws Exception {
 		String accountId1 = "Id-123";
@@ -202,4 +230,100 @@ class AccountsControllerTest {
 				.perform(post("/v1/accounts/money-transfer/").contentType(MediaType.APPLICATION_JSON).content(payload))
 				.andExpect(status().isBadRequest());
 	}
+
+	@Test
+	void streamBalanceChanges() throws Exception {
+		this.accountsService.createAccount(new Account("Id-123", new BigDecimal("123.45")));
+		this.accountsService.createAccount(new Account("Id-456", new BigDecimal("253.33")));
+
+		MvcResult result = this.mockMvc.perform(get("/v1/accounts/balance-stream?accountIds=Id-123,Id-789"))
+				.andExpect(request().asyncStarted()).andReturn();
+		awaitContent(result, "event:balance\ndata:{\"Id-123\":123.45}");
+
+		this.accountsService.transferMoney(new MoneyTransferRequest("Id-123", "Id-456", new BigDecimal("100")));
+		this.accountsService.transferMoney(new MoneyTransferRequest("Id-123", "Id-456", new BigDecimal("20")));
+		awaitContent(result, "data:{\"Id-123\":3.45}");
+		assertThat(result.getResponse().getContentAsString()).doesNotContain("data:{}");
+
+		result.getRequest().getAsyncContext().complete();
+		assertThat(this.balanceChangePublisher.hasSubscribers("Id-123")).isFalse();
+		assertThat(this.balanceChangePublisher.hasSubscribers("Id-789")).isFalse();
+	}
+
+	@Test
+	void streamBalanceChanges_ifTooManyAccountIds() throws Exception {
+		StringBuilder accountIds = new StringBuilder("Id-0");
+		for (int i = 1; i <= 100; i++) {
+			accountIds.append(",Id-").append(i);
+		}
+		this.mockMvc.perform(get("/v1/accounts/balance-stream?accountIds=" + accountIds))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void streamBalanceChanges_noInitialEventForUnknownAccounts() throws Exception {
+		MvcResult result = this.mockMvc.perform(get("/v1/accounts/balance-stream?accountIds=Id-789"))
+				.andExpect(request().asyncStarted()).andReturn();
+
+		Thread.sleep(500);
+		assertThat(result.getResponse().getContentAsString()).isEmpty();
+		result.getRequest().getAsyncContext().complete();
+	}
+
+	/**
+	 * Runs in its own application context so that the shared one stays without
+	 * velocity limits.
+	 */
+	@Nested
+	@TestPropertySource(properties = { "transfer.velocity.per-minute.max-count=1",
+			"transfer.velocity.per-minute.max-amount=150" })
+	class WithVelocityLimits {
+
+		private MockMvc limitedMockMvc;
+
+		@Autowired
+		private AccountsService limitedAccountsService;
+
+		@Autowired
+		private WebApplicationContext limitedWebApplicationContext;
+
+		@BeforeEach
+		void prepareLimitedMockMvc() {
+			this.limitedMockMvc = webAppContextSetup(this.limitedWebApplicationContext).build();
+			limitedAccountsService.getAccountsRepository().clearAccounts();
+		}
+
+		@Test
+		void transferMoney_ifVelocityLimitExceeded() throws Exception {
+			this.limitedAccountsService.createAccount(new Account("Id-123", new BigDecimal("123.45")));
+			this.limitedAccountsService.createAccount(new Account("Id-456", new BigDecimal("253.33")));
+
+			this.limitedMockMvc.perform(post("/v1/accounts/money-transfer/").contentType(MediaType.APPLICATION_JSON)
+					.content("{\"accountFrom\": \"Id-123\", \"accountTo\": \"Id-456\", \"amount\": 100}"))
+					.andExpect(status().isOk());
+			this.limitedMockMvc
+					.perform(post("/v1/accounts/money-transfer/").contentType(MediaType.APPLICATION_JSON)
+							.content("{\"accountFrom\": \"Id-123\", \"accountTo\": \"Id-456\", \"amount\": 10}"))
+					.andExpect(status().isBadRequest())
+					.andExpect(content().string("Transfer exceeds the per-minute velocity limit of account Id-123."));
+
+			// The rejected transfer passed the overdraft check but must not have debited or credited anything.
+			assertThat(this.limitedAccountsService.getAccount("Id-123").getBalance()).isEqualByComparingTo("23.45");
+			assertThat(this.limitedAccountsService.getAccount("Id-456").getBalance()).isEqualByComparingTo("353.33");
+
+			// Credits are not limited, so the receiving account can still send.
+			this.limitedMockMvc.perform(post("/v1/accounts/money-transfer/").contentType(MediaType.APPLICATION_JSON)
+					.content("{\"accountFrom\": \"Id-456\", \"accountTo\": \"Id-123\", \"amount\": 50}"))
+					.andExpect(status().isOk());
+			assertThat(this.limitedAccountsService.getAccount("Id-123").getBalance()).isEqualByComparingTo("73.45");
+		}
+	}
+
+	private static void awaitContent(MvcResult result, String expected) throws Exception {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!result.getResponse().getContentAsString().contains(expected)) {
+			assertThat(System.currentTimeMillis()).as("waiting for %s", expected).isLessThan(deadline);
+			Thread.sleep(20);
+		}
+	}
 }
@@ -4,12 +4,21 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.AccountsPage;
 import com.dws.challenge.domain.MoneyTransferRequest;
 import com.dws.challenge.exception.DuplicateAccountIdException;
 import com.dws.challenge.exception.InvalidAccountIdExcption;
 import com.dws.challenge.exception.InvalidMoneyTransferRequest;
+import com.dws.challenge.repository.AccountsRepository;
 import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.BalanceChangeListener;
 import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -53,6 +62,55 @@ class AccountsServiceTest {
     }
   }
 
+  @Test
+  void createAccount_assignsDenseHandles() {
+    AccountsRepository repository = this.accountsService.getAccountsRepository();
+    for (int i = 0; i < 1500; i++) {
+      this.accountsService.createAccount(new Account("Id-" + i));
+    }
+
+    for (int i = 0; i < 1500; i++) {
+      int handle = repository.getHandle("Id-" + i);
+      assertThat(handle).isEqualTo(i);
+      assertThat(repository.getAccount(handle).getAccountId()).isEqualTo("Id-" + i);
+    }
+    assertThat(repository.getHandle("Id-unknown")).isEqualTo(AccountsRepository.NO_HANDLE);
+  }
+
+  @Test
+  void getAccounts_scansPrefixRangeInPages() {
+    for (String accountId : new String[] {"BR2-3", "BR1-2", "BR10-1", "BR1-1", "BR1-3", "BR0-1"}) {
+      this.accountsService.createAccount(new Account(accountId));
+    }
+
+    AccountsPage firstPage = this.accountsService.getAccounts("BR1-", null, 2);
+    assertThat(firstPage.getAccounts())
+        .extracting(Account::getAccountId)
+        .containsExactly("BR1-1", "BR1-2");
+    assertThat(firstPage.getNextAfter()).isEqualTo("BR1-2");
+
+    AccountsPage secondPage =
+        this.accountsService.getAccounts("BR1-", firstPage.getNextAfter(), 2);
+    assertThat(secondPage.getAccounts())
+        .extracting(Account::getAccountId)
+        .containsExactly("BR1-3");
+    assertThat(secondPage.getNextAfter()).isNull();
+  }
+
+  @Test
+  void getAccounts_failsOnInvalidLimit() {
+    this.accountsService.createAccount(new Account("Id-1"));
+
+    for (int limit : new int[] {0, -1, AccountsService.MAX_PAGE_SIZE + 1}) {
+      try {
+        this.accountsService.getAccounts("", null, limit);
+        fail("Should have failed for limit " + limit);
+      } catch (IllegalArgumentException ex) {
+        assertThat(ex.getMessage()).isEqualTo("Limit must be between 1 and 1000.");
+      }
+    }
+  }
+
   @Test
   void transferMoney_ifInvalidFromAccount() {
 
@@ -123,6 +181,37 @@ class AccountsServiceTest {
     }
   }
 
+  @Test
+  void transferMoney_publishesBothBalances() throws InterruptedException {
+    Account account1 = new Account("Id-1", new BigDecimal("123.45"));
+    this.accountsService.createAccount(account1);
+    Account account2 = new Account("Id-2", new BigDecimal("253.33"));
+    this.accountsService.createAccount(account2);
+    BlockingQueue<Map<String, BigDecimal>> received = new LinkedBlockingQueue<>();
+    BalanceChangeListener listener = received::add;
+    this.accountsService.subscribeToBalanceChanges(List.of("Id-1", "Id-2"), listener);
+
+    try {
+      this.accountsService.transferMoney(
+          MoneyTransferRequest.builder()
+              .accountFrom("Id-1")
+              .accountTo("Id-2")
+              .amount(new BigDecimal(100))
+              .build());
+
+      // Initial balances and the transfer may arrive in one batch or several.
+      Map<String, BigDecimal> latest = new HashMap<>();
+      while (!new BigDecimal("23.45").equals(latest.get("Id-1"))
+          || !new BigDecimal("353.33").equals(latest.get("Id-2"))) {
+        Map<String, BigDecimal> balances = received.poll(5, TimeUnit.SECONDS);
+        assertThat(balances).as("balance change for %s", latest).isNotNull();
+        latest.putAll(balances);
+      }
+    } finally {
+      this.accountsService.unsubscribeFromBalanceChanges(listener);
+    }
+  }
+
   /**
    * Tests deadlock situation as well as consistency of account
    *
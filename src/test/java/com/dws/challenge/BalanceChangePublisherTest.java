@@ -0,0 +1,151 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dws.challenge.service.BalanceChangeListener;
+import com.dws.challenge.service.BalanceChangePublisher;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+class BalanceChangePublisherTest {
+
+  private BalanceChangePublisher publisher;
+
+  @BeforeEach
+  public void setup() {
+    // Long window so that only explicit flushes deliver anything.
+    publisher = new BalanceChangePublisher(60_000, 200, 4, 3);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    publisher.destroy();
+  }
+
+  @Test
+  void flush_coalescesChangesPerAccount() throws InterruptedException {
+    BlockingQueue<Map<String, BigDecimal>> received = new LinkedBlockingQueue<>();
+    publisher.subscribe(List.of("Id-1", "Id-2"), received::add);
+
+    publisher.publish("Id-1", new BigDecimal("10"));
+    publisher.publish("Id-1", new BigDecimal("20"));
+    publisher.publish("Id-2", new BigDecimal("5"));
+    publisher.publish("Id-3", new BigDecimal("7"));
+    publisher.flush();
+
+    assertThat(received.poll(5, TimeUnit.SECONDS))
+        .containsOnly(
+            Map.entry("Id-1", new BigDecimal("20")), Map.entry("Id-2", new BigDecimal("5")));
+
+    publisher.flush();
+    assertThat(received.poll(200, TimeUnit.MILLISECONDS)).isNull();
+  }
+
+  @Test
+  void flush_dropsFailingSubscriber() throws InterruptedException {
+    AtomicInteger failedDeliveries = new AtomicInteger();
+    CountDownLatch dropped = new CountDownLatch(1);
+    BalanceChangeListener failing =
+        new BalanceChangeListener() {
+
+          @Override
+          public void onBalanceChanges(Map<String, BigDecimal> balances) throws IOException {
+            failedDeliveries.incrementAndGet();
+            throw new IOException("client gone");
+          }
+
+          @Override
+          public void onDropped() {
+            dropped.countDown();
+          }
+        };
+    BlockingQueue<Map<String, BigDecimal>> received = new LinkedBlockingQueue<>();
+    publisher.subscribe(List.of("Id-1"), failing);
+    publisher.subscribe(List.of("Id-1"), received::add);
+
+    publisher.publish("Id-1", new BigDecimal("10"));
+    publisher.flush();
+    assertThat(dropped.await(5, TimeUnit.SECONDS)).isTrue();
+    publisher.publish("Id-1", new BigDecimal("30"));
+    publisher.flush();
+
+    assertThat(received.poll(5, TimeUnit.SECONDS)).containsEntry("Id-1", new BigDecimal("10"));
+    assertThat(received.poll(5, TimeUnit.SECONDS)).containsEntry("Id-1", new BigDecimal("30"));
+    assertThat(failedDeliveries).hasValue(1);
+  }
+
+  @Test
+  @Timeout(10)
+  void flush_stalledSubscriberDoesNotBlockOthersAndIsDropped() throws InterruptedException {
+    CountDownLatch stalled = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch dropped = new CountDownLatch(1);
+    BalanceChangeListener stalling =
+        new BalanceChangeListener() {
+
+          @Override
+          public void onBalanceChanges(Map<String, BigDecimal> balances) {
+            stalled.countDown();
+            try {
+              release.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+          }
+
+          @Override
+          public void onDropped() {
+            dropped.countDown();
+          }
+        };
+    BlockingQueue<Map<String, BigDecimal>> received = new LinkedBlockingQueue<>();
+    publisher.subscribe(List.of("Id-1"), stalling);
+    publisher.subscribe(List.of("Id-1"), received::add);
+
+    publisher.publish("Id-1", new BigDecimal("10"));
+    publisher.flush();
+    assertThat(stalled.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(received.poll(5, TimeUnit.SECONDS)).containsEntry("Id-1", new BigDecimal("10"));
+
+    // Past the maximum delivery lag, the next hand-off drops the stalled subscriber.
+    Thread.sleep(300);
+    publisher.publish("Id-1", new BigDecimal("20"));
+    publisher.flush();
+    assertThat(received.poll(5, TimeUnit.SECONDS)).containsEntry("Id-1", new BigDecimal("20"));
+
+    // It is closed by its own delivery thread, once the stuck write returns.
+    assertThat(dropped.await(200, TimeUnit.MILLISECONDS)).isFalse();
+    release.countDown();
+    assertThat(dropped.await(5, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  void subscribe_rejectsSubscribersOverCap() {
+    BalanceChangeListener first = balances -> {};
+    BalanceChangeListener second = balances -> {};
+    BalanceChangeListener third = balances -> {};
+    assertThat(publisher.subscribe(List.of("Id-1"), first)).isTrue();
+    assertThat(publisher.subscribe(List.of("Id-1"), second)).isTrue();
+    assertThat(publisher.subscribe(List.of("Id-2"), third)).isTrue();
+
+    assertThat(publisher.subscribe(List.of("Id-3"), balances -> {})).isFalse();
+    assertThat(publisher.hasSubscribers("Id-3")).isFalse();
+
+    publisher.unsubscribe(second);
+    publisher.unsubscribe(third);
+    assertThat(publisher.hasSubscribers("Id-1")).isTrue();
+    assertThat(publisher.hasSubscribers("Id-2")).isFalse();
+    assertThat(publisher.subscribe(List.of("Id-3"), balances -> {})).isTrue();
+  }
+}
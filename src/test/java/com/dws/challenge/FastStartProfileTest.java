@@ -0,0 +1,48 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.MoneyTransferRequest;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.MoneyTransferResult;
+import com.dws.challenge.web.StartupWarmup;
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("faststart")
+class FastStartProfileTest {
+
+  @Autowired private ConfigurableApplicationContext applicationContext;
+
+  @Autowired private AccountsService accountsService;
+
+  @Test
+  void beansAreLazyExceptStartupWarmup() {
+    ConfigurableListableBeanFactory beanFactory = applicationContext.getBeanFactory();
+
+    assertThat(beanFactory.getBeanDefinition("accountsController").isLazyInit()).isTrue();
+    assertThat(beanFactory.getBeanDefinition("balanceChangePublisher").isLazyInit()).isTrue();
+    assertThat(beanFactory.getBeanDefinition("startupWarmup").isLazyInit()).isFalse();
+    assertThat(applicationContext.getBean(StartupWarmup.class).isWarmedUp()).isTrue();
+  }
+
+  @Test
+  void transferMoney_withLazyInitialization() {
+    accountsService.getAccountsRepository().clearAccounts();
+    accountsService.createAccount(new Account("Id-1", new BigDecimal("100")));
+    accountsService.createAccount(new Account("Id-2", new BigDecimal("100")));
+
+    MoneyTransferResult result =
+        accountsService.transferMoney(new MoneyTransferRequest("Id-1", "Id-2", BigDecimal.TEN));
+
+    assertThat(result).isEqualTo(MoneyTransferResult.SUCCESS);
+    assertThat(accountsService.getAccount("Id-2").getBalance()).isEqualByComparingTo("110");
+  }
+}
@@ -0,0 +1,115 @@
+package com.dws.challenge;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.exception.VelocityLimitExceededException;
+import com.dws.challenge.service.VelocityLimit;
+import com.dws.challenge.service.VelocityLimiter;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class VelocityLimiterTest {
+
+  private final AtomicLong now = new AtomicLong(1_000_000L);
+
+  private final Account account = new Account("Id-1");
+
+  private VelocityLimiter velocityLimiter;
+
+  @BeforeEach
+  public void setup() {
+    velocityLimiter =
+        new VelocityLimiter(
+            List.of(
+                VelocityLimit.builder()
+                    .name("per-minute")
+                    .windowMillis(60_000L)
+                    .buckets(60)
+                    .maxAmount(new BigDecimal("100"))
+                    .maxCount(3)
+                    .build()),
+            now::get);
+  }
+
+  @Test
+  void checkAndRecord_rejectsWhenCountExceeded() {
+    for (int i = 0; i < 3; i++) {
+      velocityLimiter.checkAndRecord(0, account, BigDecimal.ONE);
+    }
+
+    assertThatThrownBy(() -> velocityLimiter.checkAndRecord(0, account, BigDecimal.ONE))
+        .isInstanceOf(VelocityLimitExceededException.class)
+        .hasMessage("Transfer exceeds the per-minute velocity limit of account Id-1.");
+  }
+
+  @Test
+  void checkAndRecord_rejectsWhenAmountExceededWithoutRecording() {
+    velocityLimiter.checkAndRecord(0, account, new BigDecimal("60.50"));
+
+    assertThatThrownBy(() -> velocityLimiter.checkAndRecord(0, account, new BigDecimal("39.51")))
+        .isInstanceOf(VelocityLimitExceededException.class);
+    velocityLimiter.checkAndRecord(0, account, new BigDecimal("39.50"));
+  }
+
+  @Test
+  void checkAndRecord_forgetsDebitsOutsideWindow() {
+    velocityLimiter.checkAndRecord(0, account, new BigDecimal("100"));
+    now.addAndGet(30_000L);
+    assertThatThrownBy(() -> velocityLimiter.checkAndRecord(0, account, BigDecimal.ONE))
+        .isInstanceOf(VelocityLimitExceededException.class);
+
+    now.addAndGet(30_000L);
+    velocityLimiter.checkAndRecord(0, account, new BigDecimal("100"));
+  }
+
+  @Test
+  void checkAndRecord_startsFreshWhenHandleIsReused() {
+    velocityLimiter.checkAndRecord(0, account, new BigDecimal("100"));
+
+    // After the accounts are cleared, handle 0 may belong to a different account.
+    velocityLimiter.checkAndRecord(0, new Account("Id-2"), new BigDecimal("100"));
+  }
+
+  @Test
+  void checkAndRecord_rejectsAmountBeyondLongRange() {
+    assertThatThrownBy(
+            () -> velocityLimiter.checkAndRecord(0, account, new BigDecimal("1E20")))
+        .isInstanceOf(VelocityLimitExceededException.class);
+
+    velocityLimiter.checkAndRecord(0, account, new BigDecimal("100"));
+  }
+
+  @Test
+  void checkAndRecord_countOnlyLimitAcceptsAmountBeyondLongRange() {
+    VelocityLimiter countOnlyLimiter =
+        new VelocityLimiter(
+            List.of(
+                VelocityLimit.builder()
+                    .name("per-minute")
+                    .windowMillis(60_000L)
+                    .buckets(60)
+                    .maxAmount(BigDecimal.ZERO)
+                    .maxCount(2)
+                    .build()),
+            now::get);
+
+    countOnlyLimiter.checkAndRecord(0, account, new BigDecimal("1E20"));
+    countOnlyLimiter.checkAndRecord(0, account, new BigDecimal("1E20"));
+    assertThatThrownBy(() -> countOnlyLimiter.checkAndRecord(0, account, BigDecimal.ONE))
+        .isInstanceOf(VelocityLimitExceededException.class);
+  }
+
+  @Test
+  void checkAndRecord_handlesBeyondFirstChunk() {
+    Account otherAccount = new Account("Id-2");
+    velocityLimiter.checkAndRecord(100_000, otherAccount, new BigDecimal("100"));
+
+    assertThatThrownBy(() -> velocityLimiter.checkAndRecord(100_000, otherAccount, BigDecimal.ONE))
+        .isInstanceOf(VelocityLimitExceededException.class);
+    velocityLimiter.checkAndRecord(0, account, new BigDecimal("100"));
+  }
+}